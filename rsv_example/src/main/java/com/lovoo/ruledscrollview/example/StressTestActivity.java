@@ -0,0 +1,354 @@
+package com.lovoo.ruledscrollview.example;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.TypedValue;
+import android.view.Choreographer;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.FrameLayout;
+import android.widget.HorizontalScrollView;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import com.lovoo.ruledscrollview.lib.Rule;
+
+import java.util.Locale;
+
+/**
+ * Activity to stress {@link com.lovoo.ruledscrollview.lib.RuledScrollView} with large generated layouts.
+ * Shows a HUD with interception time, frame time and fake down count to compare library changes on real devices.
+ * <p/>
+ * Block counts and depth can be changed from the menu or passed as int extras to repeat a scenario, e.g.
+ * {@code adb shell am start -n com.lovoo.ruledscrollview.example/.StressTestActivity --ei horizontal_count 100 --ei list_count 0}
+ */
+public class StressTestActivity extends Activity {
+
+    public static final String EXTRA_HORIZONTAL_COUNT = "horizontal_count";
+    public static final String EXTRA_LIST_COUNT = "list_count";
+    public static final String EXTRA_STATIC_COUNT = "static_count";
+    public static final String EXTRA_DEPTH = "depth";
+
+    private static final int TYPE_HORIZONTAL = 0;
+    private static final int TYPE_LIST = 1;
+    private static final int TYPE_STATIC = 2;
+
+    private static final int MAX_BLOCK_COUNT = 1000;
+    private static final int MIN_DEPTH = 1;
+    private static final int MAX_DEPTH = 20;
+
+    private static final int LIST_ITEM_COUNT = 50;
+    private static final int HORIZONTAL_ITEM_COUNT = 10;
+
+    private static final long FRAME_BUDGET_NANOS = 16666667L;
+    private static final long HUD_UPDATE_NANOS = 250000000L;
+
+    private static final int[] COLORS = {0xFF4CB581, 0xFFDDDD00, 0xFFAAAA00, 0xFFFFFFFF};
+
+    private TimedRuledScrollView mScrollView;
+    private LinearLayout mContainer;
+    private TextView mHud;
+
+    /**
+     * Number of blocks per type, indexed by {@code TYPE_*}.
+     */
+    private final int[] mBlockCounts = {10, 10, 10};
+    private int mDepth = 3;
+
+    private long mLastFrameNanos = 0;
+    private long mLastFrameDurationNanos = 0;
+    private long mMaxFrameDurationNanos = 0;
+    private int mJankFrameCount = 0;
+    private long mLastHudUpdateNanos = 0;
+    private boolean mResumed = false;
+
+    private Object mFrameCallback;
+
+    /**
+     * Fallback before API 16 without Choreographer: measures delay of a 16 ms handler poll, not frame time.
+     */
+    private final Runnable mLegacyFrameRunnable = new Runnable() {
+        @Override
+        public void run () {
+            onFrame(System.nanoTime());
+            if (mResumed) {
+                mHud.postDelayed(this, 16);
+            }
+        }
+    };
+
+    @Override
+    protected void onCreate ( Bundle savedInstanceState ) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stress_test);
+        mScrollView = (TimedRuledScrollView) findViewById(R.id.ruled_scroll_view);
+        mContainer = (LinearLayout) findViewById(R.id.stress_container);
+        mHud = (TextView) findViewById(R.id.stress_hud);
+
+        Bundle config = (savedInstanceState != null) ? savedInstanceState : getIntent().getExtras();
+        if (config != null) {
+            mBlockCounts[TYPE_HORIZONTAL] = clampCount(config.getInt(EXTRA_HORIZONTAL_COUNT, mBlockCounts[TYPE_HORIZONTAL]));
+            mBlockCounts[TYPE_LIST] = clampCount(config.getInt(EXTRA_LIST_COUNT, mBlockCounts[TYPE_LIST]));
+            mBlockCounts[TYPE_STATIC] = clampCount(config.getInt(EXTRA_STATIC_COUNT, mBlockCounts[TYPE_STATIC]));
+            mDepth = Math.max(MIN_DEPTH, Math.min(MAX_DEPTH, config.getInt(EXTRA_DEPTH, mDepth)));
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameCallback = createFrameCallback();
+        }
+        buildLayout();
+    }
+
+    @Override
+    protected void onSaveInstanceState ( Bundle outState ) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(EXTRA_HORIZONTAL_COUNT, mBlockCounts[TYPE_HORIZONTAL]);
+        outState.putInt(EXTRA_LIST_COUNT, mBlockCounts[TYPE_LIST]);
+        outState.putInt(EXTRA_STATIC_COUNT, mBlockCounts[TYPE_STATIC]);
+        outState.putInt(EXTRA_DEPTH, mDepth);
+    }
+
+    @Override
+    protected void onResume () {
+        super.onResume();
+        mResumed = true;
+        mLastFrameNanos = 0;
+        if (mFrameCallback != null) {
+            postFrameCallback();
+        } else {
+            mHud.post(mLegacyFrameRunnable);
+        }
+    }
+
+    @Override
+    protected void onPause () {
+        mResumed = false;
+        if (mFrameCallback != null) {
+            removeFrameCallback();
+        }
+        mHud.removeCallbacks(mLegacyFrameRunnable);
+        super.onPause();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu ( Menu menu ) {
+        getMenuInflater().inflate(R.menu.menu_stress, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected ( MenuItem item ) {
+        switch (item.getItemId()) {
+            case R.id.action_more_horizontal:
+                changeBlockCount(TYPE_HORIZONTAL, true);
+                return true;
+            case R.id.action_less_horizontal:
+                changeBlockCount(TYPE_HORIZONTAL, false);
+                return true;
+            case R.id.action_more_lists:
+                changeBlockCount(TYPE_LIST, true);
+                return true;
+            case R.id.action_less_lists:
+                changeBlockCount(TYPE_LIST, false);
+                return true;
+            case R.id.action_more_static:
+                changeBlockCount(TYPE_STATIC, true);
+                return true;
+            case R.id.action_less_static:
+                changeBlockCount(TYPE_STATIC, false);
+                return true;
+            case R.id.action_deeper:
+                mDepth = Math.min(MAX_DEPTH, mDepth + 1);
+                buildLayout();
+                return true;
+            case R.id.action_flatter:
+                mDepth = Math.max(MIN_DEPTH, mDepth - 1);
+                buildLayout();
+                return true;
+            case R.id.action_reset_stats:
+                resetStatistics();
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
+        }
+    }
+
+    private static int clampCount ( int count ) {
+        return Math.max(0, Math.min(MAX_BLOCK_COUNT, count));
+    }
+
+    /**
+     * Double or halve the number of blocks of one type and rebuild the layout.
+     */
+    private void changeBlockCount ( int type, boolean more ) {
+        int count = mBlockCounts[type];
+        mBlockCounts[type] = clampCount(more ? Math.max(1, count * 2) : count / 2);
+        buildLayout();
+    }
+
+    /**
+     * Generate the stress layout: blocks of horizontal scrollers, lists and static views, each nested {@code mDepth} times.
+     * Types are interleaved evenly by their counts.
+     */
+    private void buildLayout () {
+        mContainer.removeAllViews();
+        int[] placed = new int[mBlockCounts.length];
+        int total = 0;
+        for (int count : mBlockCounts) {
+            total += count;
+        }
+        for (int i = 0; i < total; i++) {
+            // choose the type that is furthest behind its share: lowest (placed + 1) / count
+            int type = -1;
+            for (int t = 0; t < mBlockCounts.length; t++) {
+                if (placed[t] < mBlockCounts[t]
+                        && (type < 0 || (long) (placed[t] + 1) * mBlockCounts[type] < (long) (placed[type] + 1) * mBlockCounts[t])) {
+                    type = t;
+                }
+            }
+            placed[type]++;
+
+            View block;
+            switch (type) {
+                case TYPE_HORIZONTAL:
+                    block = createHorizontalScroller(i);
+                    break;
+                case TYPE_LIST:
+                    block = createList(i);
+                    break;
+                default:
+                    block = createStaticBlock(i);
+                    break;
+            }
+            mContainer.addView(wrap(block, mDepth), new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT));
+        }
+        setTitle(getString(R.string.action_stress) + ": " + mBlockCounts[TYPE_HORIZONTAL] + "/" + mBlockCounts[TYPE_LIST] + "/"
+                + mBlockCounts[TYPE_STATIC] + " blocks, depth " + mDepth);
+        resetStatistics();
+    }
+
+    private View createHorizontalScroller ( int index ) {
+        HorizontalScrollView scroller = new HorizontalScrollView(this);
+        LinearLayout row = new LinearLayout(this);
+        row.setOrientation(LinearLayout.HORIZONTAL);
+        for (int i = 0; i < HORIZONTAL_ITEM_COUNT; i++) {
+            View item = new View(this);
+            item.setBackgroundColor(COLORS[(index + i) % COLORS.length]);
+            row.addView(item, new LinearLayout.LayoutParams(dp(120), dp(120)));
+        }
+        scroller.addView(row);
+        Rule.setRuleForView(scroller, new Rule(Rule.RULE_HANDLE_IF_SCROLLABLE, Rule.RULE_HANDLE_NEVER, Rule.RULE_HANDLE_IF_SCROLLABLE, Rule.RULE_HANDLE_NEVER));
+        return scroller;
+    }
+
+    private View createList ( int index ) {
+        ListView list = new ListView(this);
+        String[] items = new String[LIST_ITEM_COUNT];
+        for (int i = 0; i < LIST_ITEM_COUNT; i++) {
+            items[i] = "block " + index + " item " + i;
+        }
+        list.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, items));
+        list.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, dp(200)));
+        Rule rule = new Rule();
+        rule.setRuleForAllDirections(Rule.RULE_HANDLE_IF_SCROLLABLE);
+        Rule.setRuleForView(list, rule);
+        return list;
+    }
+
+    private View createStaticBlock ( int index ) {
+        TextView text = new TextView(this);
+        text.setText("static block " + index);
+        text.setPadding(dp(20), dp(20), dp(20), dp(20));
+        text.setBackgroundColor(COLORS[index % COLORS.length]);
+        text.setLayoutParams(new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, dp(80)));
+        return text;
+    }
+
+    /**
+     * Nest a view in plain layouts to increase hierarchy depth.
+     */
+    private View wrap ( View view, int depth ) {
+        View result = view;
+        for (int i = 0; i < depth; i++) {
+            FrameLayout wrapper = new FrameLayout(this);
+            wrapper.setPadding(dp(1), dp(1), dp(1), dp(1));
+            ViewGroup.LayoutParams params = result.getLayoutParams();
+            if (params == null) {
+                params = new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+            }
+            wrapper.addView(result, params);
+            result = wrapper;
+        }
+        return result;
+    }
+
+    private int dp ( int value ) {
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+
+    private void resetStatistics () {
+        mScrollView.resetTimes();
+        mLastFrameDurationNanos = 0;
+        mMaxFrameDurationNanos = 0;
+        mJankFrameCount = 0;
+        mLastFrameNanos = 0;
+        updateHud();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private Object createFrameCallback () {
+        return new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame ( long frameTimeNanos ) {
+                onFrame(frameTimeNanos);
+                if (mResumed) {
+                    postFrameCallback();
+                }
+            }
+        };
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postFrameCallback () {
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void removeFrameCallback () {
+        Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+    }
+
+    private void onFrame ( long frameTimeNanos ) {
+        if (mLastFrameNanos > 0) {
+            mLastFrameDurationNanos = frameTimeNanos - mLastFrameNanos;
+            mMaxFrameDurationNanos = Math.max(mMaxFrameDurationNanos, mLastFrameDurationNanos);
+            if (mLastFrameDurationNanos > FRAME_BUDGET_NANOS) {
+                mJankFrameCount++;
+            }
+        }
+        mLastFrameNanos = frameTimeNanos;
+        // update HUD only a few times per second to keep its own costs out of the frame time
+        if (frameTimeNanos - mLastHudUpdateNanos > HUD_UPDATE_NANOS) {
+            mLastHudUpdateNanos = frameTimeNanos;
+            updateHud();
+        }
+    }
+
+    private void updateHud () {
+        mHud.setText(String.format(Locale.US,
+                "intercept %6.3f ms (max %6.3f)\ndispatch  %6.3f ms (max %6.3f)\n%s %6.2f ms (max %6.2f)\njank %s %d\nfake downs  %d\nvisited     %d (total %d)",
+                mScrollView.getLastInterceptNanos() / 1e6, mScrollView.getMaxInterceptNanos() / 1e6,
+                mScrollView.getLastDispatchNanos() / 1e6, mScrollView.getMaxDispatchNanos() / 1e6,
+                (mFrameCallback != null) ? "frame    " : "poll     ",
+                mLastFrameDurationNanos / 1e6, mMaxFrameDurationNanos / 1e6,
+                (mFrameCallback != null) ? "frames" : "polls ",
+                mJankFrameCount,
+                mScrollView.getFakeDownCount(),
+                mScrollView.getLastVisitedChildCount(), mScrollView.getVisitedChildCount()));
+    }
+}
@@ -0,0 +1,84 @@
+package com.lovoo.ruledscrollview.example;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+
+import com.lovoo.ruledscrollview.lib.RuledScrollView;
+
+/**
+ * {@link RuledScrollView} that measures time spent for touch interception and dispatch of the last event.
+ */
+public class TimedRuledScrollView extends RuledScrollView {
+
+    private long mLastInterceptNanos = 0;
+    private long mMaxInterceptNanos = 0;
+    private long mLastDispatchNanos = 0;
+    private long mMaxDispatchNanos = 0;
+    private int mLastVisitedChildCount = 0;
+
+    public TimedRuledScrollView ( Context context ) {
+        super(context);
+    }
+
+    public TimedRuledScrollView ( Context context, AttributeSet attrs ) {
+        super(context, attrs);
+    }
+
+    public TimedRuledScrollView ( Context context, AttributeSet attrs, int defStyle ) {
+        super(context, attrs, defStyle);
+    }
+
+    @Override
+    public boolean dispatchTouchEvent ( @NonNull MotionEvent ev ) {
+        int visited = getVisitedChildCount();
+        long start = System.nanoTime();
+        boolean handled = super.dispatchTouchEvent(ev);
+        mLastDispatchNanos = System.nanoTime() - start;
+        mMaxDispatchNanos = Math.max(mMaxDispatchNanos, mLastDispatchNanos);
+        mLastVisitedChildCount = getVisitedChildCount() - visited;
+        return handled;
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent ( @NonNull MotionEvent ev ) {
+        long start = System.nanoTime();
+        boolean intercepted = super.onInterceptTouchEvent(ev);
+        mLastInterceptNanos = System.nanoTime() - start;
+        mMaxInterceptNanos = Math.max(mMaxInterceptNanos, mLastInterceptNanos);
+        return intercepted;
+    }
+
+    public long getLastInterceptNanos () {
+        return mLastInterceptNanos;
+    }
+
+    public long getMaxInterceptNanos () {
+        return mMaxInterceptNanos;
+    }
+
+    public long getLastDispatchNanos () {
+        return mLastDispatchNanos;
+    }
+
+    public long getMaxDispatchNanos () {
+        return mMaxDispatchNanos;
+    }
+
+    public int getLastVisitedChildCount () {
+        return mLastVisitedChildCount;
+    }
+
+    /**
+     * Reset measured times and statistics of {@link RuledScrollView}.
+     */
+    public void resetTimes () {
+        mLastInterceptNanos = 0;
+        mMaxInterceptNanos = 0;
+        mLastDispatchNanos = 0;
+        mMaxDispatchNanos = 0;
+        mLastVisitedChildCount = 0;
+        resetTouchStatistics();
+    }
+}
@@ -4,6 +4,7 @@ import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.app.AlertDialog;
 import android.content.DialogInterface;
+import android.content.Intent;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -33,7 +34,10 @@ public class VerticalScrollActivity extends Activity {
     @Override
     protected void onCreate ( Bundle savedInstanceState ) {
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_vertical_scroll);
+        // rules of the layout are declared with rsv_* attributes
+        @SuppressLint("InflateParams")
+        View content = Rule.wrapInflater(getLayoutInflater()).inflate(R.layout.activity_vertical_scroll, null);
+        setContentView(content);
         mScrollView = (RuledScrollView) findViewById(R.id.ruled_scroll_view);
 
         mScrollView.getChildAt(0).setOnLongClickListener(mLongClickListener);
@@ -55,6 +59,9 @@ public class VerticalScrollActivity extends Activity {
         if (id == R.id.action_rule) {
             showRuleConfigDialog(mScrollView);
             return true;
+        } else if (id == R.id.action_stress) {
+            startActivity(new Intent(this, StressTestActivity.class));
+            return true;
         }
 
         return super.onOptionsItemSelected(item);
@@ -0,0 +1,133 @@
+package com.lovoo.ruledscrollview.lib;
+
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records all {@link MotionEvent} seen by {@link RuledScrollView} into a compact binary trace that can be replayed with {@link GestureReplayer}.
+ * <p/>
+ * Trace format (big endian): header {@code int MAGIC, short VERSION}, followed by one entry per event:
+ * <pre>
+ * short action, byte pointerCount, int eventTime, int downTime, int metaState, int buttonState, int edgeFlags, int source, int flags,
+ * float rawOffsetX, float rawOffsetY,
+ * pointerCount * (byte pointerId, byte toolType),
+ * short historySize, historySize * (int eventTime, pointerCount * sample),
+ * pointerCount * sample
+ * </pre>
+ * All times are milliseconds relative to the down time of the first recorded event, a sample is {@code float x, y, pressure, size}.
+ * <p/>
+ * Usage: {@code ruledScrollView.setGestureRecorder(recorder)}, reproduce the gesture and store {@code recorder.toByteArray()}.
+ */
+public class GestureRecorder {
+
+    static final int MAGIC = 0x52535654; // "RSVT"
+    static final short VERSION = 1;
+
+    private final ByteArrayOutputStream mBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream mOut = new DataOutputStream(mBuffer);
+
+    private long mBaseTime = -1;
+    private int mEventCount = 0;
+
+    /**
+     * Default constructor.
+     */
+    public GestureRecorder () {
+        clear();
+    }
+
+    /**
+     * Append an event to the trace.
+     *
+     * @param ev event that will be recorded, it will not be modified
+     */
+    public void record ( @NonNull MotionEvent ev ) {
+        if (mBaseTime < 0) {
+            mBaseTime = ev.getDownTime();
+        }
+        try {
+            final int pointerCount = ev.getPointerCount();
+            final int historySize = ev.getHistorySize();
+            mOut.writeShort(ev.getAction());
+            mOut.writeByte(pointerCount);
+            mOut.writeInt((int) (ev.getEventTime() - mBaseTime));
+            mOut.writeInt((int) (ev.getDownTime() - mBaseTime));
+            mOut.writeInt(ev.getMetaState());
+            mOut.writeInt(ev.getButtonState());
+            mOut.writeInt(ev.getEdgeFlags());
+            mOut.writeInt(ev.getSource());
+            mOut.writeInt(ev.getFlags());
+            mOut.writeFloat(ev.getRawX() - ev.getX());
+            mOut.writeFloat(ev.getRawY() - ev.getY());
+            for (int p = 0; p < pointerCount; p++) {
+                mOut.writeByte(ev.getPointerId(p));
+                mOut.writeByte(ev.getToolType(p));
+            }
+            mOut.writeShort(historySize);
+            for (int h = 0; h < historySize; h++) {
+                mOut.writeInt((int) (ev.getHistoricalEventTime(h) - mBaseTime));
+                for (int p = 0; p < pointerCount; p++) {
+                    mOut.writeFloat(ev.getHistoricalX(p, h));
+                    mOut.writeFloat(ev.getHistoricalY(p, h));
+                    mOut.writeFloat(ev.getHistoricalPressure(p, h));
+                    mOut.writeFloat(ev.getHistoricalSize(p, h));
+                }
+            }
+            for (int p = 0; p < pointerCount; p++) {
+                mOut.writeFloat(ev.getX(p));
+                mOut.writeFloat(ev.getY(p));
+                mOut.writeFloat(ev.getPressure(p));
+                mOut.writeFloat(ev.getSize(p));
+            }
+            mEventCount++;
+        } catch (IOException e) {
+            // ByteArrayOutputStream never throws
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return number of recorded events
+     */
+    public int getEventCount () {
+        return mEventCount;
+    }
+
+    /**
+     * @return recorded trace including header
+     */
+    public byte[] toByteArray () {
+        return mBuffer.toByteArray();
+    }
+
+    /**
+     * Write recorded trace including header to a stream.
+     *
+     * @param out target stream, will not be closed
+     * @throws IOException if stream could not be written
+     */
+    public void writeTo ( @NonNull OutputStream out ) throws IOException {
+        mBuffer.writeTo(out);
+    }
+
+    /**
+     * Remove all recorded events.
+     */
+    public void clear () {
+        mBuffer.reset();
+        mBaseTime = -1;
+        mEventCount = 0;
+        try {
+            mOut.writeInt(MAGIC);
+            mOut.writeShort(VERSION);
+        } catch (IOException e) {
+            // ByteArrayOutputStream never throws
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.lovoo.ruledscrollview.lib;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.MotionEvent;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Replays a trace of {@link GestureRecorder} into a {@link RuledScrollView} and reports its decisions and costs per event.
+ * Event times are shifted to the time of replay and raw coordinates to the current screen position of the view,
+ * all other values are dispatched as recorded.
+ */
+public class GestureReplayer {
+
+    private final byte[] mTrace;
+    /**
+     * Determine if raw coordinates use the offset of the recording device instead of the current screen position.
+     */
+    private boolean mUseRecordedRawOffset = false;
+
+    /**
+     * Constructor for recorded traces.
+     *
+     * @param trace value from {@code GestureRecorder.toByteArray()}
+     */
+    public GestureReplayer ( @NonNull byte[] trace ) {
+        mTrace = trace;
+    }
+
+    /**
+     * Constructor for stored traces.
+     *
+     * @param in stream of a trace, will be read completely but not closed
+     * @throws IOException if stream could not be read
+     */
+    public GestureReplayer ( @NonNull InputStream in ) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        mTrace = buffer.toByteArray();
+    }
+
+    /**
+     * Configure how raw coordinates are restored. By default they are rebuilt from {@code view.getLocationOnScreen()},
+     * so traces of other devices or window positions hit the same children.
+     *
+     * @param useRecordedRawOffset {@code true} to dispatch raw coordinates as recorded, {@code false} to rebuild them
+     */
+    @SuppressWarnings("unused")
+    public void setUseRecordedRawOffset ( boolean useRecordedRawOffset ) {
+        mUseRecordedRawOffset = useRecordedRawOffset;
+    }
+
+    /**
+     * Dispatch all recorded events to {@code view.dispatchTouchEvent()}. Has to be called on the ui thread.
+     *
+     * @param view view under test
+     * @return report with one entry per event
+     * @throws IOException if trace is invalid
+     */
+    public Report replay ( @NonNull RuledScrollView view ) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(mTrace));
+        if (in.readInt() != GestureRecorder.MAGIC) {
+            throw new IOException("invalid trace: unknown format");
+        }
+        short version = in.readShort();
+        if (version != GestureRecorder.VERSION) {
+            throw new IOException("invalid trace: unsupported version " + version);
+        }
+
+        int[] screenLocation = null;
+        if (!mUseRecordedRawOffset) {
+            screenLocation = new int[2];
+            view.getLocationOnScreen(screenLocation);
+        }
+
+        Report report = new Report();
+        long baseTime = SystemClock.uptimeMillis();
+        MotionEvent ev;
+        while ((ev = readEvent(in, baseTime, screenLocation)) != null) {
+            int fakeDowns = view.getFakeDownCount();
+            int visited = view.getVisitedChildCount();
+            long start = System.nanoTime();
+            boolean handled = view.dispatchTouchEvent(ev);
+            long duration = System.nanoTime() - start;
+            report.add(ev.getActionMasked(), handled, view.getInterceptDecision(),
+                    view.getFakeDownCount() - fakeDowns, view.getVisitedChildCount() - visited, duration);
+            ev.recycle();
+        }
+        return report;
+    }
+
+    /**
+     * Helper method to read one event of the trace.
+     *
+     * @param in             trace stream positioned at an event entry
+     * @param baseTime       time that recorded times are relative to
+     * @param screenLocation screen position of the view used as raw offset or {@code null} to use the recorded offset
+     * @return obtained event that has to be recycled or {@code null} if trace has no more events
+     * @throws IOException if trace is invalid
+     */
+    private static MotionEvent readEvent ( DataInputStream in, long baseTime, @Nullable int[] screenLocation ) throws IOException {
+        final int action;
+        try {
+            action = in.readShort();
+        } catch (EOFException e) {
+            return null;
+        }
+        final int pointerCount = in.readUnsignedByte();
+        if (pointerCount == 0) {
+            throw new IOException("invalid trace: event without pointers");
+        }
+        final long eventTime = baseTime + in.readInt();
+        final long downTime = baseTime + in.readInt();
+        final int metaState = in.readInt();
+        final int buttonState = in.readInt();
+        final int edgeFlags = in.readInt();
+        final int source = in.readInt();
+        final int flags = in.readInt();
+        final float recordedOffsetX = in.readFloat();
+        final float recordedOffsetY = in.readFloat();
+        final float rawOffsetX = (screenLocation != null) ? screenLocation[0] : recordedOffsetX;
+        final float rawOffsetY = (screenLocation != null) ? screenLocation[1] : recordedOffsetY;
+
+        MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[pointerCount];
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[pointerCount];
+        for (int p = 0; p < pointerCount; p++) {
+            properties[p] = new MotionEvent.PointerProperties();
+            properties[p].id = in.readUnsignedByte();
+            properties[p].toolType = in.readUnsignedByte();
+            coords[p] = new MotionEvent.PointerCoords();
+        }
+
+        // recorded coordinates are local, raw coordinates are restored by offsetLocation() below
+        MotionEvent ev = null;
+        final int historySize = in.readUnsignedShort();
+        for (int h = 0; h <= historySize; h++) {
+            long sampleTime = (h < historySize) ? baseTime + in.readInt() : eventTime;
+            for (int p = 0; p < pointerCount; p++) {
+                coords[p].x = in.readFloat() + rawOffsetX;
+                coords[p].y = in.readFloat() + rawOffsetY;
+                coords[p].pressure = in.readFloat();
+                coords[p].size = in.readFloat();
+            }
+            if (ev == null) {
+                ev = MotionEvent.obtain(downTime, sampleTime, action, pointerCount, properties, coords,
+                        metaState, buttonState, 1f, 1f, 0, edgeFlags, source, flags);
+            } else {
+                ev.addBatch(sampleTime, coords, metaState);
+            }
+        }
+        ev.offsetLocation(-rawOffsetX, -rawOffsetY);
+        return ev;
+    }
+
+    /**
+     * Result of one replay. {@code toString()} prints one line per event to diff replays of different library versions.
+     */
+    public static class Report {
+
+        /**
+         * Value of a single dispatched event.
+         */
+        public static class Entry {
+            /**
+             * Masked action of the event.
+             */
+            public final int action;
+            /**
+             * Result of {@code dispatchTouchEvent()}.
+             */
+            public final boolean handled;
+            /**
+             * Interception decision after the event: {@code +1} intercepted, {@code -1} not intercepted, {@code 0} unknown.
+             */
+            public final int interceptDecision;
+            /**
+             * Number of faked down events dispatched for this event.
+             */
+            public final int fakeDowns;
+            /**
+             * Number of children visited while searching for a scrollable child.
+             */
+            public final int visitedChildren;
+            /**
+             * Time spent in {@code dispatchTouchEvent()}.
+             */
+            public final long durationNanos;
+
+            Entry ( int action, boolean handled, int interceptDecision, int fakeDowns, int visitedChildren, long durationNanos ) {
+                this.action = action;
+                this.handled = handled;
+                this.interceptDecision = interceptDecision;
+                this.fakeDowns = fakeDowns;
+                this.visitedChildren = visitedChildren;
+                this.durationNanos = durationNanos;
+            }
+
+            @Override
+            public String toString () {
+                return actionName() + " handled=" + handled + " decision=" + interceptDecision
+                        + " fakeDowns=" + fakeDowns + " visited=" + visitedChildren + " nanos=" + durationNanos;
+            }
+
+            private String actionName () {
+                // MotionEvent.actionToString() needs API 19
+                switch (action) {
+                    case MotionEvent.ACTION_DOWN:
+                        return "DOWN";
+                    case MotionEvent.ACTION_UP:
+                        return "UP";
+                    case MotionEvent.ACTION_MOVE:
+                        return "MOVE";
+                    case MotionEvent.ACTION_CANCEL:
+                        return "CANCEL";
+                    case MotionEvent.ACTION_POINTER_DOWN:
+                        return "POINTER_DOWN";
+                    case MotionEvent.ACTION_POINTER_UP:
+                        return "POINTER_UP";
+                    default:
+                        return "ACTION_" + action;
+                }
+            }
+        }
+
+        private final List<Entry> mEntries = new ArrayList<>();
+
+        void add ( int action, boolean handled, int interceptDecision, int fakeDowns, int visitedChildren, long durationNanos ) {
+            mEntries.add(new Entry(action, handled, interceptDecision, fakeDowns, visitedChildren, durationNanos));
+        }
+
+        /**
+         * @return unmodifiable entries in order of dispatch
+         */
+        public List<Entry> getEntries () {
+            return Collections.unmodifiableList(mEntries);
+        }
+
+        /**
+         * @return number of faked down events of the whole replay
+         */
+        public int getFakeDownCount () {
+            int count = 0;
+            for (Entry entry : mEntries) {
+                count += entry.fakeDowns;
+            }
+            return count;
+        }
+
+        /**
+         * @return number of visited children of the whole replay
+         */
+        public int getVisitedChildCount () {
+            int count = 0;
+            for (Entry entry : mEntries) {
+                count += entry.visitedChildren;
+            }
+            return count;
+        }
+
+        /**
+         * @return time spent in {@code dispatchTouchEvent()} for the whole replay
+         */
+        public long getDurationNanos () {
+            long duration = 0;
+            for (Entry entry : mEntries) {
+                duration += entry.durationNanos;
+            }
+            return duration;
+        }
+
+        @Override
+        public String toString () {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < mEntries.size(); i++) {
+                builder.append(i).append(": ").append(mEntries.get(i)).append('\n');
+            }
+            builder.append("total: fakeDowns=").append(getFakeDownCount())
+                    .append(" visited=").append(getVisitedChildCount())
+                    .append(" nanos=").append(getDurationNanos());
+            return builder.toString();
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.lovoo.ruledscrollview.lib;
 
+import android.content.Context;
+import android.content.res.TypedArray;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
 import android.view.View;
 
 /**
@@ -41,6 +45,16 @@ public class Rule {
     private static final int RULE_CONFIG_SHIFT = 3;
     private static final int RULE_CONFIG_MASK = 0x0007;
 
+    /**
+     * Returned by {@code Rule.compileConfig()} if no rule attribute was declared.
+     */
+    static final int RULE_CONFIG_NONE = -1;
+
+    /**
+     * Name prefix of rule attributes, used if an attribute name can not be resolved to a resource id.
+     */
+    private static final String RULE_ATTRIBUTE_PREFIX = "rsv_rule";
+
     private int[] mDirectionFlags;
 
     /**
@@ -55,6 +69,116 @@ public class Rule {
         }
     }
 
+    /**
+     * Method to setup a view with the rule attributes ({@code rsv_rule}, {@code rsv_ruleLeft}, ...) of its xml declaration.
+     * Can be called in the constructor of custom views, {@code Rule.wrapInflater()} only covers them if a factory creates them.
+     *
+     * @param view  target view that will receive the declared rule
+     * @param attrs attributes of the xml declaration
+     * @return {@code true} if a rule was declared and set, {@code false} otherwise
+     */
+    public static boolean setRuleFromAttributes ( View view, @Nullable AttributeSet attrs ) {
+        if (view == null) {
+            return false;
+        }
+        int config = compileConfig(view.getContext(), attrs);
+        if (config == RULE_CONFIG_NONE) {
+            return false;
+        }
+        view.setTag(R.id.ruled_scroll_view_config_tag, config);
+        return true;
+    }
+
+    /**
+     * Create an inflater that sets the rule attributes ({@code rsv_rule}, {@code rsv_ruleLeft}, ...) of inflated views,
+     * no matter how deep they are nested. Views are still created by the inflater and its factories (e.g. AppCompat).
+     * Custom views declared with their full class name are only covered if a factory creates them, otherwise they have
+     * to call {@code Rule.setRuleFromAttributes()} in their constructor like {@link RuledScrollView} does.
+     * <p/>
+     * Usage: {@code setContentView(Rule.wrapInflater(getLayoutInflater()).inflate(R.layout.activity, null));}
+     *
+     * @param inflater inflater that will be copied, it will not be modified
+     * @return new inflater that applies rule attributes
+     */
+    public static LayoutInflater wrapInflater ( @NonNull LayoutInflater inflater ) {
+        return new RuleLayoutInflater(inflater, inflater.getContext());
+    }
+
+    /**
+     * Check if an xml declaration contains rule attributes without resolving them.
+     *
+     * @param attrs attributes of the xml declaration
+     * @return {@code true} if at least one rule attribute is declared, {@code false} otherwise
+     */
+    static boolean hasRuleAttributes ( @Nullable AttributeSet attrs ) {
+        if (attrs == null) {
+            return false;
+        }
+        for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+            int resId = attrs.getAttributeNameResource(i);
+            if (resId == 0) {
+                String name = attrs.getAttributeName(i);
+                if (name != null && name.startsWith(RULE_ATTRIBUTE_PREFIX)) {
+                    return true;
+                }
+            } else if (resId == R.attr.rsv_rule
+                    || resId == R.attr.rsv_ruleLeft
+                    || resId == R.attr.rsv_ruleUp
+                    || resId == R.attr.rsv_ruleRight
+                    || resId == R.attr.rsv_ruleDown) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compile rule attributes of an xml declaration into an exported config.
+     * {@code rsv_rule} is used for all directions and will be overwritten by each declared direction.
+     *
+     * @param context context used to resolve attributes
+     * @param attrs   attributes of the xml declaration
+     * @return value like {@code Rule.exportConfig()} or {@code RULE_CONFIG_NONE} if no rule attribute was declared
+     */
+    static int compileConfig ( Context context, @Nullable AttributeSet attrs ) {
+        if (context == null || !hasRuleAttributes(attrs)) {
+            return RULE_CONFIG_NONE;
+        }
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.RuledScrollView_Rule);
+        try {
+            boolean declared = false;
+            Rule rule = new Rule();
+            if (a.hasValue(R.styleable.RuledScrollView_Rule_rsv_rule)) {
+                rule.setRuleForAllDirections(a.getInt(R.styleable.RuledScrollView_Rule_rsv_rule, RULE_HANDLE_NEVER));
+                declared = true;
+            }
+            declared |= readDirection(a, R.styleable.RuledScrollView_Rule_rsv_ruleLeft, rule, DIRECTION.LEFT);
+            declared |= readDirection(a, R.styleable.RuledScrollView_Rule_rsv_ruleUp, rule, DIRECTION.UP);
+            declared |= readDirection(a, R.styleable.RuledScrollView_Rule_rsv_ruleRight, rule, DIRECTION.RIGHT);
+            declared |= readDirection(a, R.styleable.RuledScrollView_Rule_rsv_ruleDown, rule, DIRECTION.DOWN);
+            return declared ? rule.exportConfig() : RULE_CONFIG_NONE;
+        } finally {
+            a.recycle();
+        }
+    }
+
+    /**
+     * Helper method to read one direction attribute.
+     *
+     * @param a         styled attributes
+     * @param index     attribute index
+     * @param rule      rule that will receive the value
+     * @param direction direction that will be overwritten
+     * @return {@code true} if attribute was declared
+     */
+    private static boolean readDirection ( TypedArray a, int index, Rule rule, DIRECTION direction ) {
+        if (a.hasValue(index)) {
+            rule.setRule(a.getInt(index, RULE_HANDLE_NEVER), direction);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Method to get a rule from a view.
      *
@@ -72,6 +196,24 @@ public class Rule {
         return new Rule(config);
     }
 
+    /**
+     * Method to get the mode of one direction from a view without creating a {@link Rule}, used while touch events are dispatched.
+     *
+     * @param view      target view
+     * @param direction requested direction
+     * @return active rule for given direction or {@code RULE_HANDLE_NEVER}
+     */
+    static int getModeForDirection ( View view, @Nullable DIRECTION direction ) {
+        if (view == null || direction == null) {
+            return RULE_HANDLE_NEVER;
+        }
+        Object value = view.getTag(R.id.ruled_scroll_view_config_tag);
+        if (value == null) {
+            return RULE_HANDLE_NEVER;
+        }
+        return ((Integer) value >> (direction.ordinal() * RULE_CONFIG_SHIFT)) & RULE_CONFIG_MASK;
+    }
+
     /**
      * Check if deeper layout checks can be skipped.
      *
@@ -80,9 +222,9 @@ public class Rule {
      * @return {@code true} if current rule is {@code RULE_HANDLE_ALWAYS} || {@code RULE_HANDLE_IGNORE_CHILDREN}, {@code false} otherwise
      */
     public static boolean ignoreChildrenForDirection ( View view, DIRECTION direction ) {
-        Rule rule = getRuleFromView(view);
-        return (rule.getRuleForDirection(direction) & RULE_HANDLE_ALWAYS) > 0
-                || (rule.getRuleForDirection(direction) & RULE_HANDLE_IGNORE_CHILDREN) > 0;
+        int mode = getModeForDirection(view, direction);
+        return (mode & RULE_HANDLE_ALWAYS) > 0
+                || (mode & RULE_HANDLE_IGNORE_CHILDREN) > 0;
     }
 
     /**
@@ -92,10 +234,7 @@ public class Rule {
      * @param leftRightDifference currently used move direction (startPoint.X - currentPosition.X)
      * @return {@code true} if current rule allows scroll in this direction, {@code false} otherwise
      */
-    @SuppressWarnings("SimplifiableIfStatement")
     public static boolean canViewScrollHorizontal ( View view, int leftRightDifference ) {
-        Rule rule = getRuleFromView(view);
-
         DIRECTION direction = null;
         if (leftRightDifference < 0) {
             direction = DIRECTION.LEFT;
@@ -103,15 +242,16 @@ public class Rule {
             direction = DIRECTION.RIGHT;
         }
 
-        int mode = rule.getRuleForDirection(direction);
-        if ((mode & RULE_HANDLE_ALWAYS) > 0) {
-            return true;
-        } else if ((mode & RULE_HANDLE_ALWAYS) == 0) {
-            // RULE_HANDLE_NEVER active
-            return false;
+        int mode = getModeForDirection(view, direction);
+        switch (mode) {
+            case RULE_HANDLE_ALWAYS:
+                return true;
+            case RULE_HANDLE_NEVER:
+                return false;
+            case RULE_HANDLE_IF_SCROLLABLE:
+            default:
+                return view.canScrollHorizontally(leftRightDifference);
         }
-
-        return view.canScrollHorizontally(leftRightDifference);
     }
 
     /**
@@ -122,8 +262,6 @@ public class Rule {
      * @return {@code true} if current rule allows scroll in this direction, {@code false} otherwise
      */
     public static boolean canViewScrollVertical ( View view, int upDownDifference ) {
-        Rule rule = getRuleFromView(view);
-
         DIRECTION direction = null;
         if (upDownDifference < 0) {
             direction = DIRECTION.UP;
@@ -131,7 +269,7 @@ public class Rule {
             direction = DIRECTION.DOWN;
         }
 
-        int mode = rule.getRuleForDirection(direction);
+        int mode = getModeForDirection(view, direction);
         switch (mode) {
             case RULE_HANDLE_ALWAYS:
                 return true;
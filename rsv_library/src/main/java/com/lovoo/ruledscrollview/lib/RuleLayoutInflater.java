@@ -0,0 +1,113 @@
+package com.lovoo.ruledscrollview.lib;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.LayoutInflater;
+import android.view.View;
+
+/**
+ * {@link LayoutInflater} that compiles rule attributes ({@code rsv_rule}, {@code rsv_ruleLeft}, ...) of inflated views.
+ * Views are still created by the inflater itself or by the factories that were set before (e.g. AppCompat), they are only
+ * post-processed if their declaration contains a rule attribute.
+ * Created by {@code Rule.wrapInflater()}.
+ */
+class RuleLayoutInflater extends LayoutInflater {
+
+    /**
+     * Packages used for views without package, same order as the platform inflater.
+     */
+    private static final String[] CLASS_PREFIXES = {
+            "android.widget.",
+            "android.webkit.",
+            "android.app."
+    };
+
+    /**
+     * Constructor, copies factories and filter of the original inflater.
+     *
+     * @param original   inflater that will be copied, it will not be modified
+     * @param newContext context of the new inflater
+     */
+    RuleLayoutInflater ( LayoutInflater original, Context newContext ) {
+        super(original, newContext);
+        // clones of this class already copied the wrapped factories
+        if (!(original instanceof RuleLayoutInflater)) {
+            Factory2 factory2 = original.getFactory2();
+            Factory factory = original.getFactory();
+            if (factory2 != null || factory != null) {
+                setFactory2(new RuleFactory(factory2, factory));
+            }
+        }
+    }
+
+    @Override
+    public LayoutInflater cloneInContext ( Context newContext ) {
+        return new RuleLayoutInflater(this, newContext);
+    }
+
+    /**
+     * Overridden to resolve views without package like the platform inflater.
+     * <p/>
+     * {@inheritDoc}
+     */
+    @Override
+    protected View onCreateView ( String name, AttributeSet attrs ) throws ClassNotFoundException {
+        for (String prefix : CLASS_PREFIXES) {
+            try {
+                View view = createView(name, prefix, attrs);
+                if (view != null) {
+                    return view;
+                }
+            } catch (ClassNotFoundException e) {
+                // try next package
+            }
+        }
+        return super.onCreateView(name, attrs);
+    }
+
+    /**
+     * Overridden to apply rule attributes of views that were not created by a factory.
+     * <p/>
+     * {@inheritDoc}
+     */
+    @Override
+    protected View onCreateView ( View parent, String name, AttributeSet attrs ) throws ClassNotFoundException {
+        View view = super.onCreateView(parent, name, attrs);
+        Rule.setRuleFromAttributes(view, attrs);
+        return view;
+    }
+
+    /**
+     * Factory that applies rule attributes to views created by the factories of the original inflater.
+     * It is merged in front of them by {@code setFactory2()}, so the original factories run on their own if this one returns {@code null}.
+     */
+    private static class RuleFactory implements Factory2 {
+
+        private final Factory2 mFactory2;
+        private final Factory mFactory;
+
+        RuleFactory ( Factory2 factory2, Factory factory ) {
+            mFactory2 = factory2;
+            mFactory = factory;
+        }
+
+        @Override
+        public View onCreateView ( View parent, String name, Context context, AttributeSet attrs ) {
+            if (!Rule.hasRuleAttributes(attrs)) {
+                return null;
+            }
+            View view = mFactory2 != null
+                    ? mFactory2.onCreateView(parent, name, context, attrs)
+                    : mFactory.onCreateView(name, context, attrs);
+            if (view != null) {
+                Rule.setRuleFromAttributes(view, attrs);
+            }
+            return view;
+        }
+
+        @Override
+        public View onCreateView ( String name, Context context, AttributeSet attrs ) {
+            return onCreateView(null, name, context, attrs);
+        }
+    }
+}
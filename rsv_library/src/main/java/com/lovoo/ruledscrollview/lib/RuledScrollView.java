@@ -8,20 +8,40 @@ package com.lovoo.ruledscrollview.lib;
 import android.content.Context;
 import android.graphics.PointF;
 import android.graphics.Rect;
+import android.os.Build;
 import android.support.annotation.NonNull;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.FrameLayout;
+import android.widget.OverScroller;
 import android.widget.ScrollView;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class RuledScrollView extends ScrollView {
 
+    /**
+     * Pointer policy: track the first pointer until it goes up, then the next remaining one.
+     */
+    public static final int POINTER_POLICY_FOLLOW_PRIMARY = 0;
+    /**
+     * Pointer policy: track the pointer that went down last, if it goes up the most recent one that is still down.
+     */
+    public static final int POINTER_POLICY_FOLLOW_NEWEST = 1;
+    /**
+     * Pointer policy: track the average position of all pointers.
+     */
+    public static final int POINTER_POLICY_AVERAGE = 2;
+
     // TODO change to gradle config
     private static final boolean LOG_ENABLED = false;
 
@@ -62,11 +82,79 @@ public class RuledScrollView extends ScrollView {
      */
     private int mActivePointerId = 0;
 
+    /**
+     * How pointers are tracked if more than one is down, see {@code POINTER_POLICY_*}.
+     */
+    private int mPointerPolicy = POINTER_POLICY_FOLLOW_PRIMARY;
+    /**
+     * Reused position of tracked pointers.
+     */
+    private final PointF mTrackedPoint = new PointF();
+    /**
+     * Ids of all pointers that are down, in order of their down events (newest last).
+     */
+    private int[] mPointerDownIds = new int[4];
+    private int mPointerDownIdCount = 0;
+
     /**
      * Determine if isVisible() should do a parent check as well.
      */
     private boolean mDoVisibleParentCheck = false;
 
+    /**
+     * Determine if fling velocity will be passed between children and this view.
+     */
+    private boolean mFlingHandoffEnabled = true;
+    private int mMinimumVelocity;
+    private int mMaximumVelocity;
+    private VelocityTracker mVelocityTracker = null;
+    /**
+     * Shadow of the fling that is currently watched to estimate its remaining velocity.
+     */
+    private OverScroller mFlingShadow;
+    /**
+     * Child that flings and will delegate remaining velocity to this view, {@code null} if this view flings.
+     */
+    private View mFlingTarget = null;
+    /**
+     * Direction of watched fling: {@code >0} scroll down, {@code <0} scroll up, {@code 0} no fling watched.
+     */
+    private int mFlingDirection = 0;
+    /**
+     * Hold information if current fling of this view was started by a child.
+     */
+    private boolean mIsHandoffFling = false;
+    /**
+     * Raw position of last touch up event, used to find children for a fling handoff.
+     */
+    private int mLastRawX = 0;
+    private int mLastRawY = 0;
+    /**
+     * Hold information if a touch up event is dispatched, only flings started by it are watched for a handoff to children.
+     */
+    private boolean mIsDispatchingTouchUp = false;
+
+    /**
+     * Optional recorder for all dispatched {@link MotionEvent}.
+     */
+    private GestureRecorder mGestureRecorder = null;
+    /**
+     * Statistics: number of dispatched fake down events and visited children while searching scrollable children.
+     */
+    private int mFakeDownCount = 0;
+    private int mVisitedChildCount = 0;
+    /**
+     * Hold information if a fake down event is dispatched, it will not be recorded or tracked.
+     */
+    private boolean mIsDispatchingFakeDown = false;
+
+    private final Runnable mFlingHandoffRunnable = new Runnable() {
+        @Override
+        public void run () {
+            onFlingHandoffFrame();
+        }
+    };
+
 
     public RuledScrollView ( Context context ) {
         this(context, null);
@@ -78,7 +166,38 @@ public class RuledScrollView extends ScrollView {
 
     public RuledScrollView ( Context context, AttributeSet attrs, int defStyle ) {
         super(context, attrs, defStyle);
-        mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        mTouchSlop = configuration.getScaledTouchSlop();
+        mMinimumVelocity = configuration.getScaledMinimumFlingVelocity();
+        mMaximumVelocity = configuration.getScaledMaximumFlingVelocity();
+        mFlingShadow = new OverScroller(context);
+        Rule.setRuleFromAttributes(this, attrs);
+    }
+
+    /**
+     * Overridden to compile rule attributes of the child declaration.
+     * <p/>
+     * {@inheritDoc}
+     */
+    @Override
+    public FrameLayout.LayoutParams generateLayoutParams ( AttributeSet attrs ) {
+        return new LayoutParams(getContext(), attrs);
+    }
+
+    /**
+     * Overridden to apply the compiled rule of {@link LayoutParams} once the child is added.
+     * <p/>
+     * {@inheritDoc}
+     */
+    @Override
+    public void addView ( View child, int index, ViewGroup.LayoutParams params ) {
+        super.addView(child, index, params);
+        if (params instanceof LayoutParams) {
+            int config = ((LayoutParams) params).ruleConfig;
+            if (config != Rule.RULE_CONFIG_NONE) {
+                child.setTag(R.id.ruled_scroll_view_config_tag, config);
+            }
+        }
     }
 
     /**
@@ -92,6 +211,85 @@ public class RuledScrollView extends ScrollView {
         mDoVisibleParentCheck = enableVisibleParentCheck;
     }
 
+    /**
+     * Configure which position is tracked if more than one pointer is down. Whenever the tracked position changes because
+     * a pointer goes down or up, the stored down position is moved along, so touch direction does not jump.
+     *
+     * @param pointerPolicy one of {@code POINTER_POLICY_FOLLOW_PRIMARY}, {@code POINTER_POLICY_FOLLOW_NEWEST} or {@code POINTER_POLICY_AVERAGE}
+     */
+    @SuppressWarnings("unused")
+    public void setPointerPolicy ( int pointerPolicy ) {
+        mPointerPolicy = pointerPolicy;
+    }
+
+    /**
+     * Configure if fling velocity will be passed on: from a child to this view if the child reached its border while flinging
+     * and from this view to a child if this view reached its border. The handoff respects the {@link Rule} of both views.
+     *
+     * @param enableFlingHandoff {@code true} to continue flings in the next scrollable view, {@code false} otherwise
+     */
+    @SuppressWarnings("unused")
+    public void setFlingHandoffEnabled ( boolean enableFlingHandoff ) {
+        mFlingHandoffEnabled = enableFlingHandoff;
+        if (!enableFlingHandoff) {
+            stopFlingHandoff();
+        }
+    }
+
+    /**
+     * Record all {@link MotionEvent} that will be dispatched to this view, e.g. to replay them with {@link GestureReplayer}.
+     *
+     * @param recorder recorder that will receive events or {@code null} to stop recording
+     */
+    @SuppressWarnings("unused")
+    public void setGestureRecorder ( GestureRecorder recorder ) {
+        mGestureRecorder = recorder;
+    }
+
+    /**
+     * @return number of fake down events dispatched since last {@code resetTouchStatistics()}
+     */
+    public int getFakeDownCount () {
+        return mFakeDownCount;
+    }
+
+    /**
+     * @return number of children visited to find a scrollable child since last {@code resetTouchStatistics()}
+     */
+    public int getVisitedChildCount () {
+        return mVisitedChildCount;
+    }
+
+    /**
+     * @return current interception decision: {@code +1} intercepted, {@code -1} not intercepted, {@code 0} unknown
+     */
+    public int getInterceptDecision () {
+        return mInterceptMode;
+    }
+
+    /**
+     * @return axis of current gesture: {@code >0} y-axis, {@code <=0} x-axis
+     */
+    int getTouchAxis () {
+        return mTouchAxis;
+    }
+
+    /**
+     * @return direction of current gesture on its axis, inverted delta to the down position
+     */
+    int getTouchDirection () {
+        return mTouchDirection;
+    }
+
+    /**
+     * Reset all touch statistic counters.
+     */
+    @SuppressWarnings("unused")
+    public void resetTouchStatistics () {
+        mFakeDownCount = 0;
+        mVisitedChildCount = 0;
+    }
+
     /**
      * DispatchTouchEvent will cause an faked {@code ACTION_DOWN} event.
      * if this view has:
@@ -105,21 +303,58 @@ public class RuledScrollView extends ScrollView {
     @Override
     public boolean dispatchTouchEvent ( @NonNull MotionEvent ev ) {
 
+        if (!mIsDispatchingFakeDown) {
+            if (mGestureRecorder != null) {
+                mGestureRecorder.record(ev);
+            }
+            trackVelocity(ev);
+        }
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                if (!mIsDispatchingFakeDown) {
+                    mPointerDownIdCount = 0;
+                    pushPointerDownId(MotionEventCompat.getPointerId(ev, 0));
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                pushPointerDownId(MotionEventCompat.getPointerId(ev, MotionEventCompat.getActionIndex(ev)));
+                onPointerDown(ev);
+                break;
+            case MotionEvent.ACTION_POINTER_UP:
+                // check if a second pointer is active
+                onSecondaryPointerUp(ev);
+                removePointerDownId(MotionEventCompat.getPointerId(ev, MotionEventCompat.getActionIndex(ev)));
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mPointerDownIdCount = 0;
+                break;
+            default:
+                break;
+        }
         if (ev.getActionMasked() == MotionEvent.ACTION_MOVE && mInterceptMode < 0 && !mHasConsumedDown) {
             updateTouchDirection(ev);
             // intercept event only if scrollable
             if (getInterceptionMode(ev) > 0) {
-                return super.dispatchTouchEvent(getFakeDownEvent(ev));
+                MotionEvent fakeEvent = getFakeDownEvent(ev);
+                mIsDispatchingFakeDown = true;
+                boolean handled = super.dispatchTouchEvent(fakeEvent);
+                mIsDispatchingFakeDown = false;
+                fakeEvent.recycle();
+                return handled;
             }
         }
-        return super.dispatchTouchEvent(ev);
+        boolean handled = super.dispatchTouchEvent(ev);
+        // raw position of this touch up is only valid for flings started while dispatching it
+        mIsDispatchingTouchUp = false;
+        return handled;
     }
 
     /**
      * Create an fake down event with an touch offset equals to touch slop to make touch handling seem less.
      *
      * @param ev current event
-     * @return faked down event
+     * @return faked down event, has to be recycled after dispatch
      */
     private MotionEvent getFakeDownEvent ( @NonNull MotionEvent ev ) {
         MotionEvent fakeEvent = MotionEvent.obtain(ev);
@@ -128,6 +363,7 @@ public class RuledScrollView extends ScrollView {
         int offsetX = (mTouchAxis < 0) ? offset : 0;
         int offsetY = (mTouchAxis > 0) ? offset : 0;
         fakeEvent.offsetLocation(offsetX, offsetY);
+        mFakeDownCount++;
         if (LOG_ENABLED) {
             Log.w(TAG, "dispatch fake down event: " + ev.getX() + " (" + offsetX + "), " + ev.getY() + " (" + offsetY + ")");
         }
@@ -146,8 +382,16 @@ public class RuledScrollView extends ScrollView {
             case MotionEvent.ACTION_DOWN:
                 // store event initial values
                 mInterceptMode = 0;
-                mDownPoint = new PointF(ev.getX(), ev.getY());
-                mActivePointerId = MotionEventCompat.getPointerId(ev, 0);
+                // fake down events are dispatched in the middle of a gesture: keep the pointer of the pointer policy
+                boolean isFakeDown = mIsDispatchingFakeDown || MotionEventCompat.getPointerCount(ev) > 1;
+                if (!isFakeDown || mActivePointerId == -1 || MotionEventCompat.findPointerIndex(ev, mActivePointerId) < 0) {
+                    mActivePointerId = MotionEventCompat.getPointerId(ev, 0);
+                }
+                if (getTrackedPoint(ev, -1, mTrackedPoint)) {
+                    mDownPoint = new PointF(mTrackedPoint.x, mTrackedPoint.y);
+                } else {
+                    mDownPoint = new PointF(ev.getX(), ev.getY());
+                }
                 if (LOG_ENABLED) {
                     Log.i(RuledScrollView.class.getSimpleName(), "intercept down even: " + ev.getX() + ", " + ev.getY());
                 }
@@ -178,11 +422,6 @@ public class RuledScrollView extends ScrollView {
                 }
                 break;
 
-            case MotionEvent.ACTION_POINTER_UP:
-                // check if a second pointer is active
-                onSecondaryPointerUp(ev);
-                break;
-
             case MotionEvent.ACTION_UP:
             case MotionEvent.ACTION_CANCEL:
                 // reset event values
@@ -234,6 +473,12 @@ public class RuledScrollView extends ScrollView {
 
     Rect outRect = new Rect();
 
+    /**
+     * Reused stack of ViewGroups that still have to be checked by {@code findScrollableChild()}, each recursion level
+     * appends its parents and removes them before it returns. Avoids allocations while touch events are dispatched.
+     */
+    private final ArrayList<ViewGroup> mPendingParents = new ArrayList<>();
+
     /**
      * Helper method to determine if event coordinates are in boundary of an view.
      *
@@ -261,6 +506,179 @@ public class RuledScrollView extends ScrollView {
         }
     }
 
+    /**
+     * Overridden to watch the fling and pass its remaining velocity to a child once this view reached its border.
+     * Only flings started by a touch up event are watched, the child is searched at its raw position.
+     * <p/>
+     * {@inheritDoc}
+     */
+    @Override
+    public void fling ( int velocityY ) {
+        super.fling(velocityY);
+        if (mFlingHandoffEnabled && !mIsHandoffFling && mIsDispatchingTouchUp) {
+            startFlingHandoff(null, velocityY);
+        }
+        mIsHandoffFling = false;
+    }
+
+    @Override
+    protected void onDetachedFromWindow () {
+        stopFlingHandoff();
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Helper method to track touch velocity and to start a fling handoff if a child handled the gesture.
+     *
+     * @param ev current event
+     */
+    private void trackVelocity ( @NonNull MotionEvent ev ) {
+        if (!mFlingHandoffEnabled) {
+            return;
+        }
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                stopFlingHandoff();
+                if (mVelocityTracker == null) {
+                    mVelocityTracker = VelocityTracker.obtain();
+                } else {
+                    mVelocityTracker.clear();
+                }
+                mVelocityTracker.addMovement(ev);
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+            case MotionEvent.ACTION_POINTER_DOWN:
+            case MotionEvent.ACTION_POINTER_UP:
+                if (mVelocityTracker != null) {
+                    mVelocityTracker.addMovement(ev);
+                }
+                break;
+
+            case MotionEvent.ACTION_UP:
+                mLastRawX = (int) ev.getRawX();
+                mLastRawY = (int) ev.getRawY();
+                mIsDispatchingTouchUp = true;
+                if (mVelocityTracker != null) {
+                    mVelocityTracker.addMovement(ev);
+                    // only a vertical fling of a child can be continued by this view
+                    if (mInterceptMode < 0 && mTouchAxis > 0) {
+                        mVelocityTracker.computeCurrentVelocity(1000, mMaximumVelocity);
+                        float velocityY = (mActivePointerId != -1)
+                                ? mVelocityTracker.getYVelocity(mActivePointerId)
+                                : mVelocityTracker.getYVelocity();
+                        // inverted velocity like ScrollView.fling(int)
+                        int flingVelocity = (int) -velocityY;
+                        if (Math.abs(flingVelocity) > mMinimumVelocity) {
+                            int direction = flingVelocity > 0 ? 1 : -1;
+                            View target = findScrollableChild(this, mLastRawX, mLastRawY, 1, direction);
+                            Rule.DIRECTION ruleDirection = direction > 0 ? Rule.DIRECTION.DOWN : Rule.DIRECTION.UP;
+                            // child keeps its fling if it should keep touch events even at its border
+                            if (target != null && (Rule.getModeForDirection(target, ruleDirection) & Rule.RULE_HANDLE_ALWAYS) == 0) {
+                                startFlingHandoff(target, flingVelocity);
+                            }
+                        }
+                    }
+                    mVelocityTracker.recycle();
+                    mVelocityTracker = null;
+                }
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                if (mVelocityTracker != null) {
+                    mVelocityTracker.recycle();
+                    mVelocityTracker = null;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Start to watch a fling until its view reached its border.
+     *
+     * @param target   flinging child or {@code null} if this view flings
+     * @param velocity fling velocity (positive to scroll down)
+     */
+    private void startFlingHandoff ( View target, int velocity ) {
+        stopFlingHandoff();
+        if (velocity == 0) {
+            return;
+        }
+        mFlingTarget = target;
+        mFlingDirection = velocity > 0 ? 1 : -1;
+        mFlingShadow.fling(0, 0, 0, Math.abs(velocity), 0, 0, 0, Integer.MAX_VALUE);
+        ViewCompat.postOnAnimation(this, mFlingHandoffRunnable);
+        if (LOG_ENABLED) {
+            Log.d(TAG, "watch fling: " + velocity + " of " + (target != null ? target : "self"));
+        }
+    }
+
+    /**
+     * Stop watching the current fling.
+     */
+    private void stopFlingHandoff () {
+        removeCallbacks(mFlingHandoffRunnable);
+        mFlingShadow.forceFinished(true);
+        mFlingTarget = null;
+        mFlingDirection = 0;
+    }
+
+    /**
+     * Check once per frame if the flinging view reached its border and pass the remaining velocity on.
+     */
+    private void onFlingHandoffFrame () {
+        if (mFlingDirection == 0 || !mFlingShadow.computeScrollOffset()) {
+            stopFlingHandoff();
+            return;
+        }
+        int direction = mFlingDirection;
+        int velocity = (int) mFlingShadow.getCurrVelocity() * direction;
+        if (mFlingTarget != null) {
+            if (!mFlingTarget.canScrollVertically(direction)) {
+                stopFlingHandoff();
+                if (Math.abs(velocity) > mMinimumVelocity && Rule.canViewScrollVertical(this, direction)) {
+                    if (LOG_ENABLED) {
+                        Log.d(TAG, "fling handoff to self: " + velocity);
+                    }
+                    mIsHandoffFling = true;
+                    fling(velocity);
+                }
+                return;
+            }
+        } else if (!canScrollVertically(direction)) {
+            stopFlingHandoff();
+            Rule.DIRECTION ruleDirection = direction > 0 ? Rule.DIRECTION.DOWN : Rule.DIRECTION.UP;
+            // children never get touch events if this view should handle them always
+            if (Math.abs(velocity) > mMinimumVelocity && (Rule.getModeForDirection(this, ruleDirection) & Rule.RULE_HANDLE_ALWAYS) == 0) {
+                View target = findScrollableChild(this, mLastRawX, mLastRawY, 1, direction);
+                if (target != null) {
+                    if (LOG_ENABLED) {
+                        Log.d(TAG, "fling handoff to child: " + velocity + " " + target);
+                    }
+                    flingChild(target, velocity);
+                }
+            }
+            return;
+        }
+        ViewCompat.postOnAnimation(this, mFlingHandoffRunnable);
+    }
+
+    /**
+     * Helper method to start a vertical fling on a child, only supported for {@link ScrollView} and {@link AbsListView} (API 21).
+     *
+     * @param child    child that should fling
+     * @param velocity fling velocity (positive to scroll down)
+     */
+    private void flingChild ( View child, int velocity ) {
+        if (child instanceof ScrollView) {
+            ((ScrollView) child).fling(velocity);
+        } else if (child instanceof AbsListView && Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            ((AbsListView) child).fling(velocity);
+        }
+    }
+
     /**
      * Overridden to remember if touch down event was originally handled by this view and to ignore touch move if rule is set {@link Rule}.
      * <p/>
@@ -287,7 +705,7 @@ public class RuledScrollView extends ScrollView {
                             Log.d(RuledScrollView.class.getSimpleName(), "touch event move vertical: " + canScroll);
                         }
                         if (!canScroll) {
-                            dispatchTouchEvent(getFakeDownEvent(ev));
+                            dispatchFakeDownEvent(ev);
                         }
                         return canScroll && super.onTouchEvent(ev);
                     }
@@ -298,7 +716,7 @@ public class RuledScrollView extends ScrollView {
                             Log.d(RuledScrollView.class.getSimpleName(), "touch event move horizontal: " + canScroll);
                         }
                         if (!canScroll) {
-                            dispatchTouchEvent(getFakeDownEvent(ev));
+                            dispatchFakeDownEvent(ev);
                         }
                         return canScroll && super.onTouchEvent(ev);
                     }
@@ -320,14 +738,24 @@ public class RuledScrollView extends ScrollView {
         return super.onTouchEvent(ev);
     }
 
+    /**
+     * Dispatch a faked down event and recycle it afterwards.
+     *
+     * @param ev current event
+     */
+    private void dispatchFakeDownEvent ( @NonNull MotionEvent ev ) {
+        MotionEvent fakeEvent = getFakeDownEvent(ev);
+        mIsDispatchingFakeDown = true;
+        dispatchTouchEvent(fakeEvent);
+        mIsDispatchingFakeDown = false;
+        fakeEvent.recycle();
+    }
+
     private void updateTouchDirection ( MotionEvent ev ) {
-        if (mActivePointerId != -1) {
-            final int pointerIndex = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
-            if (pointerIndex >= 0) {
-                final float x = MotionEventCompat.getX(ev, pointerIndex);
-                final float y = MotionEventCompat.getY(ev, pointerIndex);
-                int dX = (int) (mDownPoint.x - x); // inverted delta (old - new value)
-                int dY = (int) (mDownPoint.y - y); // inverted delta (old - new value)
+        if (mDownPoint != null) {
+            if (getTrackedPoint(ev, -1, mTrackedPoint)) {
+                int dX = (int) (mDownPoint.x - mTrackedPoint.x); // inverted delta (old - new value)
+                int dY = (int) (mDownPoint.y - mTrackedPoint.y); // inverted delta (old - new value)
                 mTouchAxis = Math.abs(dY) - Math.abs(dX);
                 if (mTouchAxis > 0) {
                     if (LOG_ENABLED) {
@@ -344,6 +772,146 @@ public class RuledScrollView extends ScrollView {
         }
     }
 
+    /**
+     * Helper method to get the tracked position of the current pointer policy.
+     *
+     * @param ev           current event
+     * @param ignoredIndex pointer index that will be ignored (pointer going up) or {@code -1}
+     * @param outPoint     receives tracked position
+     * @return {@code true} if position is available
+     */
+    private boolean getTrackedPoint ( @NonNull MotionEvent ev, int ignoredIndex, @NonNull PointF outPoint ) {
+        if (mPointerPolicy == POINTER_POLICY_AVERAGE) {
+            final int pointerCount = MotionEventCompat.getPointerCount(ev);
+            float sumX = 0;
+            float sumY = 0;
+            int count = 0;
+            for (int i = 0; i < pointerCount; i++) {
+                if (i != ignoredIndex) {
+                    sumX += MotionEventCompat.getX(ev, i);
+                    sumY += MotionEventCompat.getY(ev, i);
+                    count++;
+                }
+            }
+            if (count == 0) {
+                return false;
+            }
+            outPoint.set(sumX / count, sumY / count);
+            return true;
+        }
+
+        if (mActivePointerId == -1) {
+            return false;
+        }
+        final int pointerIndex = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
+        if (pointerIndex < 0) {
+            return false;
+        }
+        outPoint.set(MotionEventCompat.getX(ev, pointerIndex), MotionEventCompat.getY(ev, pointerIndex));
+        return true;
+    }
+
+    /**
+     * Move stored down position by the change of the tracked position, so touch direction stays the same after a pointer change.
+     *
+     * @param oldX tracked x position before pointer change
+     * @param oldY tracked y position before pointer change
+     * @param ev   triggered POINTER_DOWN or POINTER_UP event
+     * @param ignoredIndex pointer index that is going up or {@code -1}
+     */
+    private void rebaseDownPoint ( float oldX, float oldY, @NonNull MotionEvent ev, int ignoredIndex ) {
+        if (mDownPoint != null && getTrackedPoint(ev, ignoredIndex, mTrackedPoint)) {
+            mDownPoint.offset(mTrackedPoint.x - oldX, mTrackedPoint.y - oldY);
+            if (LOG_ENABLED) {
+                Log.v(TAG, "rebase down point: " + mDownPoint);
+            }
+        }
+    }
+
+    /**
+     * Remember a pointer that went down as the newest one.
+     *
+     * @param pointerId id of the pointer
+     */
+    private void pushPointerDownId ( int pointerId ) {
+        removePointerDownId(pointerId);
+        if (mPointerDownIdCount == mPointerDownIds.length) {
+            mPointerDownIds = Arrays.copyOf(mPointerDownIds, mPointerDownIds.length * 2);
+        }
+        mPointerDownIds[mPointerDownIdCount++] = pointerId;
+    }
+
+    /**
+     * Forget a pointer that went up.
+     *
+     * @param pointerId id of the pointer
+     */
+    private void removePointerDownId ( int pointerId ) {
+        for (int i = 0; i < mPointerDownIdCount; i++) {
+            if (mPointerDownIds[i] == pointerId) {
+                System.arraycopy(mPointerDownIds, i + 1, mPointerDownIds, i, mPointerDownIdCount - i - 1);
+                mPointerDownIdCount--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Helper method to find the pointer that went down last and is still part of the event.
+     *
+     * @param ev        current event
+     * @param ignoredId pointer id that is going up
+     * @return pointer id or {@code -1}
+     */
+    private int findNewestPointerId ( @NonNull MotionEvent ev, int ignoredId ) {
+        for (int i = mPointerDownIdCount - 1; i >= 0; i--) {
+            final int pointerId = mPointerDownIds[i];
+            if (pointerId != ignoredId && MotionEventCompat.findPointerIndex(ev, pointerId) >= 0) {
+                return pointerId;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper method to find the pointer that went down first and is still part of the event.
+     *
+     * @param ev        current event
+     * @param ignoredId pointer id that is going up
+     * @return pointer id or {@code -1}
+     */
+    private int findOldestPointerId ( @NonNull MotionEvent ev, int ignoredId ) {
+        for (int i = 0; i < mPointerDownIdCount; i++) {
+            final int pointerId = mPointerDownIds[i];
+            if (pointerId != ignoredId && MotionEventCompat.findPointerIndex(ev, pointerId) >= 0) {
+                return pointerId;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Store new pointer depending on pointer policy.
+     *
+     * @param ev triggered POINTER_DOWN event
+     */
+    private void onPointerDown ( @NonNull MotionEvent ev ) {
+        if (mActivePointerId == -1) {
+            return;
+        }
+        final int pointerIndex = MotionEventCompat.getActionIndex(ev);
+        // tracked position before this pointer went down
+        if (!getTrackedPoint(ev, pointerIndex, mTrackedPoint)) {
+            return;
+        }
+        final float oldX = mTrackedPoint.x;
+        final float oldY = mTrackedPoint.y;
+        if (mPointerPolicy == POINTER_POLICY_FOLLOW_NEWEST) {
+            mActivePointerId = MotionEventCompat.getPointerId(ev, pointerIndex);
+        }
+        rebaseDownPoint(oldX, oldY, ev, -1);
+    }
+
     /**
      * Store new primary pointer if first pointer was removed.
      *
@@ -352,13 +920,30 @@ public class RuledScrollView extends ScrollView {
     private void onSecondaryPointerUp ( @NonNull MotionEvent ev ) {
         if (mActivePointerId != -1) {
             final int pointerIndex = MotionEventCompat.getActionIndex(ev);
+            // tracked position before this pointer goes up
+            if (!getTrackedPoint(ev, -1, mTrackedPoint)) {
+                return;
+            }
+            final float oldX = mTrackedPoint.x;
+            final float oldY = mTrackedPoint.y;
             final int pointerId = MotionEventCompat.getPointerId(ev, pointerIndex);
             if (pointerId == mActivePointerId) {
                 // This was our active pointer going up. Choose a new
                 // active pointer and adjust accordingly.
-                final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
-                mActivePointerId = MotionEventCompat.getPointerId(ev, newPointerIndex);
+                int newPointerId;
+                if (mPointerPolicy == POINTER_POLICY_FOLLOW_NEWEST) {
+                    newPointerId = findNewestPointerId(ev, pointerId);
+                } else {
+                    newPointerId = findOldestPointerId(ev, pointerId);
+                }
+                if (newPointerId == -1) {
+                    // pointers went down before this view received events
+                    final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
+                    newPointerId = MotionEventCompat.getPointerId(ev, newPointerIndex);
+                }
+                mActivePointerId = newPointerId;
             }
+            rebaseDownPoint(oldX, oldY, ev, pointerIndex);
         }
     }
 
@@ -371,42 +956,78 @@ public class RuledScrollView extends ScrollView {
      * @return true if child or one of its children can scroll
      */
     protected boolean oneChildCanScroll ( ViewGroup vg, int rawX, int rawY ) {
+        return findScrollableChild(vg, rawX, rawY, mTouchAxis, mTouchDirection) != null;
+    }
+
+    /**
+     * Recursive method to find the child view that can scroll and whose view boundaries contain the event coordinates.
+     *
+     * @param vg        the ViewGroup's children will be checked
+     * @param rawX      event raw x coordinate
+     * @param rawY      event raw y coordinate
+     * @param axis      {@code <0} for x-axis, {@code >=0} for y-axis
+     * @param direction scroll direction on given axis
+     * @return scrollable child or {@code null}
+     */
+    private View findScrollableChild ( ViewGroup vg, int rawX, int rawY, int axis, int direction ) {
         if (LOG_ENABLED) {
             Log.d(TAG, "vg: " + vg);
         }
         View child;
-        ArrayList<ViewGroup> parents = new ArrayList<>();
+        View scrollableChild = null;
+        final int start = mPendingParents.size();
         if (vg == null) {
             // invalid argument
-            return false;
+            return null;
 
         } else {
             // check all view children as siblings
             for (int i = 0; i < vg.getChildCount(); i++) {
                 child = vg.getChildAt(i);
+                mVisitedChildCount++;
                 if (LOG_ENABLED) {
                     Log.d(TAG, " --> child: " + child);
                 }
-                if (isInViewBounds(child, rawX, rawY) && isVisible(child)) {
-                    if ((mTouchAxis < 0 && Rule.canViewScrollHorizontal(child, mTouchDirection))
-                            || (mTouchAxis >= 0 && Rule.canViewScrollVertical(child, mTouchDirection))) {
-                        return true;
+                // visibility first: bounds check has to walk up the view tree
+                if (isVisible(child) && isInViewBounds(child, rawX, rawY)) {
+                    if ((axis < 0 && Rule.canViewScrollHorizontal(child, direction))
+                            || (axis >= 0 && Rule.canViewScrollVertical(child, direction))) {
+                        scrollableChild = child;
+                        break;
                     } else if (child instanceof ViewGroup && ((ViewGroup) child).getChildCount() > 0) {
                         // only check parents that are visible and within view bounds
-                        parents.add((ViewGroup) child);
+                        mPendingParents.add((ViewGroup) child);
                     }
                 }
             }
         }
 
         // check all view children and their children (start recursion)
-        for (ViewGroup parent : parents) {
-            if (oneChildCanScroll(parent, rawX, rawY)) {
-                return true;
-            }
+        final int end = mPendingParents.size();
+        for (int i = start; i < end && scrollableChild == null; i++) {
+            scrollableChild = findScrollableChild(mPendingParents.get(i), rawX, rawY, axis, direction);
         }
-        parents.clear();
+        // remove parents of this level, deeper levels already removed theirs
+        for (int i = mPendingParents.size() - 1; i >= start; i--) {
+            mPendingParents.remove(i);
+        }
+
+        return scrollableChild;
+    }
+
+    /**
+     * LayoutParams that hold the rule declared with {@code rsv_rule}, {@code rsv_ruleLeft}, ... for the child of {@link RuledScrollView}.
+     */
+    public static class LayoutParams extends FrameLayout.LayoutParams {
 
-        return false;
+        /**
+         * Compiled rule like {@code Rule.exportConfig()} or {@code Rule.RULE_CONFIG_NONE}.
+         */
+        final int ruleConfig;
+
+        public LayoutParams ( Context context, AttributeSet attrs ) {
+            super(context, attrs);
+            ruleConfig = Rule.compileConfig(context, attrs);
+        }
     }
 }
@@ -0,0 +1,450 @@
+package com.lovoo.ruledscrollview.lib;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.view.InputDevice;
+import android.view.MotionEvent;
+import android.widget.ScrollView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Drives gestures through synthetic hierarchies of {@link SyntheticHierarchy} from 10 to 10,000 nodes and depth 2 to 30.
+ * Checks interception decisions, fake down events and per event budgets for visited children and allocations.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class RuledScrollViewStressTest {
+
+    /**
+     * Hierarchy sizes as {width, depth}: 10, 100, 1000, 10000 and 10020 nodes.
+     */
+    private static final int[][] SIZES = {{5, 2}, {10, 10}, {40, 25}, {5000, 2}, {334, 30}};
+
+    /**
+     * A move event may search the tree twice: once in dispatchTouchEvent() and once in onInterceptTouchEvent().
+     */
+    private static final int MAX_TRAVERSALS_PER_EVENT = 2;
+    /**
+     * Allocation budget for a move event once the gesture is decided, independent of hierarchy size.
+     */
+    private static final long MAX_ALLOCATED_BYTES_PER_EVENT = 256;
+    /**
+     * First moves are excluded from the allocation budget: they cross touch slop and grow reused buffers.
+     */
+    private static final int WARM_UP_MOVES = 2;
+
+    private static final int MOVE_COUNT = 8;
+    private static final int MOVE_STEP = 30;
+
+    private static final int[] POINTER_POLICIES = {RuledScrollView.POINTER_POLICY_FOLLOW_PRIMARY,
+            RuledScrollView.POINTER_POLICY_FOLLOW_NEWEST, RuledScrollView.POINTER_POLICY_AVERAGE};
+
+    private Activity mActivity;
+
+    @Before
+    public void setUp () {
+        mActivity = Robolectric.setupActivity(Activity.class);
+    }
+
+    @Test
+    public void interceptsWhenNoChildCanScroll () {
+        for (int[] size : SIZES) {
+            SyntheticHierarchy hierarchy = new SyntheticHierarchy(mActivity, size[0], size[1], false, Rule.RULE_HANDLE_IF_SCROLLABLE);
+            Gesture gesture = new Gesture(hierarchy, true);
+
+            String message = describe(hierarchy, size);
+            assertEquals(message, 1, gesture.decision);
+            assertEquals(message, 0, gesture.fakeDownCount);
+            assertTrue(message, gesture.maxVisited > 0);
+            assertVisitedBudget(message, hierarchy, gesture);
+        }
+    }
+
+    @Test
+    public void keepsGestureInScrollableChild () {
+        for (int[] size : SIZES) {
+            SyntheticHierarchy hierarchy = new SyntheticHierarchy(mActivity, size[0], size[1], true, Rule.RULE_HANDLE_IF_SCROLLABLE);
+            Gesture gesture = new Gesture(hierarchy, true);
+
+            String message = describe(hierarchy, size);
+            assertEquals(message, -1, gesture.decision);
+            assertEquals(message, 0, gesture.fakeDownCount);
+            assertTrue(message, gesture.maxVisited > 0);
+            assertVisitedBudget(message, hierarchy, gesture);
+        }
+    }
+
+    @Test
+    public void interceptsWhenScrollableChildRuleIsNever () {
+        for (int[] size : SIZES) {
+            SyntheticHierarchy hierarchy = new SyntheticHierarchy(mActivity, size[0], size[1], true, Rule.RULE_HANDLE_NEVER);
+            Gesture gesture = new Gesture(hierarchy, true);
+
+            String message = describe(hierarchy, size);
+            assertEquals(message, 1, gesture.decision);
+            assertEquals(message, 0, gesture.fakeDownCount);
+            assertVisitedBudget(message, hierarchy, gesture);
+        }
+    }
+
+    @Test
+    public void skipsChildrenIfContainerHandlesAlways () {
+        for (int[] size : SIZES) {
+            SyntheticHierarchy hierarchy = new SyntheticHierarchy(mActivity, size[0], size[1], true, Rule.RULE_HANDLE_IF_SCROLLABLE);
+            Rule.setRuleForView(hierarchy.scrollView, new Rule(Rule.RULE_HANDLE_IF_SCROLLABLE, Rule.RULE_HANDLE_ALWAYS,
+                    Rule.RULE_HANDLE_IF_SCROLLABLE, Rule.RULE_HANDLE_ALWAYS));
+            Gesture gesture = new Gesture(hierarchy, true);
+
+            String message = describe(hierarchy, size);
+            assertEquals(message, 1, gesture.decision);
+            assertEquals(message, 0, gesture.fakeDownCount);
+            assertEquals(message, 0, gesture.totalVisited);
+        }
+    }
+
+    @Test
+    public void interceptionStaysWithinAllocationBudget () {
+        assumeTrue(isAllocationMeasurable());
+        for (int[] size : SIZES) {
+            SyntheticHierarchy hierarchy = new SyntheticHierarchy(mActivity, size[0], size[1], true, Rule.RULE_HANDLE_IF_SCROLLABLE);
+            Gesture gesture = new Gesture(hierarchy, false);
+
+            String message = describe(hierarchy, size);
+            assertEquals(message, -1, gesture.decision);
+            assertVisitedBudget(message, hierarchy, gesture);
+            assertTrue(message + ": allocated " + gesture.maxAllocatedBytes + " bytes",
+                    gesture.maxAllocatedBytes <= MAX_ALLOCATED_BYTES_PER_EVENT);
+        }
+    }
+
+    @Test
+    public void keepsDirectionWhilePointersSwap () {
+        for (int policy : POINTER_POLICIES) {
+            SyntheticHierarchy hierarchy = new SyntheticHierarchy(mActivity, 10, 10, true, Rule.RULE_HANDLE_IF_SCROLLABLE);
+            hierarchy.scrollView.setPointerPolicy(policy);
+            PointerSwap swap = new PointerSwap(hierarchy);
+
+            String message = "policy " + policy + ", " + hierarchy.nodeCount + " nodes";
+            assertEquals(message, -1, swap.decision);
+            assertFalse(message + ": axis or direction flipped", swap.directionChanged);
+            assertEquals(message, 0, swap.pointerEventVisited);
+            assertEquals(message, 0, swap.fakeDownCount);
+            assertVisitedBudget(message, hierarchy, swap.maxVisited);
+        }
+    }
+
+    @Test
+    public void dispatchStaysWithinAllocationBudget () {
+        assumeTrue(isAllocationMeasurable());
+        for (int[] size : SIZES) {
+            // a static leaf that handles always keeps the gesture without scrolling, so moves only measure this view
+            SyntheticHierarchy hierarchy = new SyntheticHierarchy(mActivity, size[0], size[1], false, Rule.RULE_HANDLE_ALWAYS);
+            Gesture gesture = new Gesture(hierarchy, true);
+
+            String message = describe(hierarchy, size);
+            assertEquals(message, -1, gesture.decision);
+            assertEquals(message, 0, gesture.fakeDownCount);
+            assertVisitedBudget(message, hierarchy, gesture);
+            assertTrue(message + ": allocated " + gesture.maxAllocatedBytes + " bytes",
+                    gesture.maxAllocatedBytes <= MAX_ALLOCATED_BYTES_PER_EVENT);
+        }
+    }
+
+    @Test
+    public void keepsHorizontalDragInScrollableChild () {
+        for (int[] size : SIZES) {
+            SyntheticHierarchy hierarchy = new SyntheticHierarchy(mActivity, size[0], size[1], SyntheticHierarchy.LEAF_HORIZONTAL,
+                    Rule.RULE_HANDLE_IF_SCROLLABLE);
+            Gesture gesture = new Gesture(hierarchy, true, MOVE_STEP, 0);
+
+            String message = describe(hierarchy, size);
+            assertTrue(message, gesture.axis <= 0);
+            assertEquals(message, -1, gesture.decision);
+            assertEquals(message, 0, gesture.fakeDownCount);
+            assertTrue(message, gesture.maxVisited > 0);
+            assertVisitedBudget(message, hierarchy, gesture);
+        }
+    }
+
+    @Test
+    public void takesOverOnceChildReachesBorder () {
+        for (int[] size : SIZES) {
+            SyntheticHierarchy hierarchy = createBorderHierarchy(size);
+            Gesture gesture = new Gesture(hierarchy, true);
+
+            String message = describe(hierarchy, size);
+            assertEquals(message, 1, gesture.decision);
+            assertEquals(message, 1, gesture.fakeDownCount);
+            assertFalse(message, hierarchy.lastLeaf.canScrollVertically(1));
+            assertTrue(message, hierarchy.scrollView.getScrollY() > 0);
+            assertVisitedBudget(message, hierarchy, gesture);
+        }
+    }
+
+    @Test
+    public void pointerSwapStaysWithinVisitedBudget () {
+        for (int[] size : SIZES) {
+            SyntheticHierarchy hierarchy = new SyntheticHierarchy(mActivity, size[0], size[1], true, Rule.RULE_HANDLE_IF_SCROLLABLE);
+            PointerSwap swap = new PointerSwap(hierarchy);
+
+            String message = describe(hierarchy, size);
+            assertEquals(message, -1, swap.decision);
+            assertFalse(message + ": axis or direction flipped", swap.directionChanged);
+            assertEquals(message, 0, swap.pointerEventVisited);
+            assertEquals(message, 0, swap.fakeDownCount);
+            assertVisitedBudget(message, hierarchy, swap.maxVisited);
+        }
+    }
+
+    @Test
+    public void replaysRecordedGesture () throws IOException {
+        for (int[] size : SIZES) {
+            SyntheticHierarchy recorded = createBorderHierarchy(size);
+            GestureRecorder recorder = new GestureRecorder();
+            recorded.scrollView.setGestureRecorder(recorder);
+            Gesture gesture = new Gesture(recorded, true);
+            recorded.scrollView.setGestureRecorder(null);
+
+            SyntheticHierarchy replayed = createBorderHierarchy(size);
+            GestureReplayer.Report report = new GestureReplayer(recorder.toByteArray()).replay(replayed.scrollView);
+            List<GestureReplayer.Report.Entry> entries = report.getEntries();
+
+            String message = describe(replayed, size);
+            // down, moves and up, fake downs are not recorded
+            assertEquals(message, MOVE_COUNT + 2, recorder.getEventCount());
+            assertEquals(message, recorder.getEventCount(), entries.size());
+            assertEquals(message, gesture.decision, entries.get(entries.size() - 2).interceptDecision);
+            assertEquals(message, gesture.fakeDownCount, report.getFakeDownCount());
+            assertEquals(message, gesture.totalVisited, report.getVisitedChildCount());
+        }
+    }
+
+    /**
+     * Helper method to create a hierarchy whose scrollable leaf reaches its bottom in the middle of a gesture.
+     */
+    private SyntheticHierarchy createBorderHierarchy ( int[] size ) {
+        SyntheticHierarchy hierarchy = new SyntheticHierarchy(mActivity, size[0], size[1], true, Rule.RULE_HANDLE_IF_SCROLLABLE);
+        // leave two moves of scroll range
+        ScrollView leaf = (ScrollView) hierarchy.lastLeaf;
+        leaf.scrollTo(0, leaf.getChildAt(0).getHeight() - leaf.getHeight() - 2 * MOVE_STEP);
+        return hierarchy;
+    }
+
+    private static void assertVisitedBudget ( String message, SyntheticHierarchy hierarchy, Gesture gesture ) {
+        assertVisitedBudget(message, hierarchy, gesture.maxVisited);
+    }
+
+    private static void assertVisitedBudget ( String message, SyntheticHierarchy hierarchy, int maxVisited ) {
+        int budget = MAX_TRAVERSALS_PER_EVENT * hierarchy.nodeCount;
+        assertTrue(message + ": visited " + maxVisited + " of budget " + budget, maxVisited <= budget);
+    }
+
+    private static String describe ( SyntheticHierarchy hierarchy, int[] size ) {
+        return "width " + size[0] + ", depth " + size[1] + " (" + hierarchy.nodeCount + " nodes)";
+    }
+
+    private static boolean isAllocationMeasurable () {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported();
+    }
+
+    private static long allocatedBytes () {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Helper method to create an event with several pointers.
+     *
+     * @param downTime  time of first down event
+     * @param eventTime time of this event
+     * @param action    action, including the pointer index for pointer down and up
+     * @param ids       pointer ids in order of their index
+     * @param points    position of each pointer as {x, y}
+     * @return new event, has to be recycled
+     */
+    private static MotionEvent obtain ( long downTime, long eventTime, int action, int[] ids, float[][] points ) {
+        MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[ids.length];
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            properties[i] = new MotionEvent.PointerProperties();
+            properties[i].id = ids[i];
+            properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+            coords[i] = new MotionEvent.PointerCoords();
+            coords[i].x = points[i][0];
+            coords[i].y = points[i][1];
+            coords[i].pressure = 1;
+            coords[i].size = 1;
+        }
+        return MotionEvent.obtain(downTime, eventTime, action, ids.length, properties, coords, 0, 0, 1, 1, 0, 0,
+                InputDevice.SOURCE_TOUCHSCREEN, 0);
+    }
+
+    private static int pointerAction ( int action, int pointerIndex ) {
+        return action | (pointerIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT);
+    }
+
+    /**
+     * Drag from the center of the screen, by default vertical towards the top, measured per event.
+     */
+    private static class Gesture {
+
+        /**
+         * Interception decision and touch axis after the last move.
+         */
+        int decision;
+        int axis;
+        int fakeDownCount;
+        int totalVisited;
+        int maxVisited;
+        /**
+         * Largest allocation of a move after warm up.
+         */
+        long maxAllocatedBytes;
+
+        /**
+         * @param hierarchy hierarchy that receives the gesture
+         * @param dispatch  {@code true} to use dispatchTouchEvent(), {@code false} to call onInterceptTouchEvent() only
+         */
+        Gesture ( SyntheticHierarchy hierarchy, boolean dispatch ) {
+            this(hierarchy, dispatch, 0, MOVE_STEP);
+        }
+
+        /**
+         * @param hierarchy hierarchy that receives the gesture
+         * @param dispatch  {@code true} to use dispatchTouchEvent(), {@code false} to call onInterceptTouchEvent() only
+         * @param stepX     distance per move towards the left
+         * @param stepY     distance per move towards the top
+         */
+        Gesture ( SyntheticHierarchy hierarchy, boolean dispatch, int stepX, int stepY ) {
+            RuledScrollView view = hierarchy.scrollView;
+            boolean measureAllocation = isAllocationMeasurable();
+            view.resetTouchStatistics();
+
+            long downTime = SystemClock.uptimeMillis();
+            float x = SyntheticHierarchy.SCREEN_WIDTH / 2;
+            float y = SyntheticHierarchy.SCREEN_HEIGHT / 2;
+            send(view, dispatch, MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, x, y, 0));
+
+            for (int i = 1; i <= MOVE_COUNT; i++) {
+                MotionEvent move = MotionEvent.obtain(downTime, downTime + i * 16, MotionEvent.ACTION_MOVE, x - i * stepX, y - i * stepY, 0);
+                int visited = view.getVisitedChildCount();
+                long allocated = measureAllocation ? allocatedBytes() : 0;
+                send(view, dispatch, move);
+                if (measureAllocation && i > WARM_UP_MOVES) {
+                    maxAllocatedBytes = Math.max(maxAllocatedBytes, allocatedBytes() - allocated);
+                }
+                int delta = view.getVisitedChildCount() - visited;
+                maxVisited = Math.max(maxVisited, delta);
+            }
+            decision = view.getInterceptDecision();
+            axis = view.getTouchAxis();
+
+            send(view, dispatch, MotionEvent.obtain(downTime, downTime + (MOVE_COUNT + 1) * 16, MotionEvent.ACTION_UP,
+                    x - MOVE_COUNT * stepX, y - MOVE_COUNT * stepY, 0));
+            fakeDownCount = view.getFakeDownCount();
+            totalVisited = view.getVisitedChildCount();
+        }
+
+        private static void send ( RuledScrollView view, boolean dispatch, MotionEvent ev ) {
+            if (dispatch) {
+                view.dispatchTouchEvent(ev);
+            } else {
+                view.onInterceptTouchEvent(ev);
+            }
+            ev.recycle();
+        }
+    }
+
+    /**
+     * Vertical drag towards the top that is passed from one finger to another: the first finger moves alone, the second one
+     * goes down below and right of it, both move, the first one goes up and the second one moves alone.
+     */
+    private static class PointerSwap {
+
+        private static final int STEPS = MOVE_COUNT / 2;
+
+        int decision;
+        int fakeDownCount;
+        int maxVisited;
+        /**
+         * Children visited while pointer down and up events are dispatched.
+         */
+        int pointerEventVisited;
+        /**
+         * {@code true} if axis or direction did not point up after any move.
+         */
+        boolean directionChanged;
+
+        private final RuledScrollView mView;
+        private final long mDownTime = SystemClock.uptimeMillis();
+        private long mEventTime = mDownTime;
+
+        PointerSwap ( SyntheticHierarchy hierarchy ) {
+            mView = hierarchy.scrollView;
+            mView.resetTouchStatistics();
+
+            float x0 = SyntheticHierarchy.SCREEN_WIDTH / 4;
+            float y0 = SyntheticHierarchy.SCREEN_HEIGHT / 2;
+            float x1 = SyntheticHierarchy.SCREEN_WIDTH * 3 / 4;
+            float y1 = y0 + 150;
+            int[] both = {0, 1};
+            int[] second = {1};
+
+            dispatch(MotionEvent.ACTION_DOWN, new int[]{0}, new float[][]{{x0, y0}}, false);
+            for (int i = 1; i <= STEPS; i++) {
+                dispatch(MotionEvent.ACTION_MOVE, new int[]{0}, new float[][]{{x0, y0 - i * MOVE_STEP}}, true);
+            }
+            y0 -= STEPS * MOVE_STEP;
+
+            dispatch(pointerAction(MotionEvent.ACTION_POINTER_DOWN, 1), both, new float[][]{{x0, y0}, {x1, y1}}, false);
+            for (int i = 1; i <= STEPS; i++) {
+                dispatch(MotionEvent.ACTION_MOVE, both, new float[][]{{x0, y0 - i * MOVE_STEP}, {x1, y1 - i * MOVE_STEP}}, true);
+            }
+            y0 -= STEPS * MOVE_STEP;
+            y1 -= STEPS * MOVE_STEP;
+
+            dispatch(pointerAction(MotionEvent.ACTION_POINTER_UP, 0), both, new float[][]{{x0, y0}, {x1, y1}}, false);
+            for (int i = 1; i <= STEPS; i++) {
+                dispatch(MotionEvent.ACTION_MOVE, second, new float[][]{{x1, y1 - i * MOVE_STEP}}, true);
+            }
+            y1 -= STEPS * MOVE_STEP;
+            decision = mView.getInterceptDecision();
+
+            dispatch(MotionEvent.ACTION_UP, second, new float[][]{{x1, y1}}, false);
+            fakeDownCount = mView.getFakeDownCount();
+        }
+
+        private void dispatch ( int action, int[] ids, float[][] points, boolean move ) {
+            mEventTime += 16;
+            MotionEvent ev = obtain(mDownTime, mEventTime, action, ids, points);
+            int visited = mView.getVisitedChildCount();
+            mView.dispatchTouchEvent(ev);
+            ev.recycle();
+            int delta = mView.getVisitedChildCount() - visited;
+            if (move) {
+                maxVisited = Math.max(maxVisited, delta);
+                directionChanged |= mView.getTouchAxis() <= 0 || mView.getTouchDirection() <= 0;
+            } else if (action != MotionEvent.ACTION_DOWN && action != MotionEvent.ACTION_UP) {
+                pointerEventVisited += delta;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.lovoo.ruledscrollview.lib;
+
+import android.app.Activity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.HorizontalScrollView;
+import android.widget.ScrollView;
+
+/**
+ * Builds a synthetic view tree under {@link RuledScrollView} for stress tests.
+ * <p/>
+ * The child of {@link RuledScrollView} holds {@code width} overlapping branches, each a chain of {@code depth - 1}
+ * {@link FrameLayout} with one leaf at its end. All views fill their parent, so every node contains the touch point and a
+ * search for a scrollable child has to visit the whole tree. Groups get mixed rules, static leaves are clickable to receive
+ * the down event. The leaf of the last branch can be a {@link ScrollView} or a {@link HorizontalScrollView}, it is found last.
+ */
+class SyntheticHierarchy {
+
+    static final int SCREEN_WIDTH = 480;
+    static final int SCREEN_HEIGHT = 800;
+
+    /**
+     * Leaf types of the last branch.
+     */
+    static final int LEAF_STATIC = 0;
+    static final int LEAF_VERTICAL = 1;
+    static final int LEAF_HORIZONTAL = 2;
+
+    final RuledScrollView scrollView;
+    /**
+     * Leaf of the last branch.
+     */
+    final View lastLeaf;
+    /**
+     * Number of views below {@link RuledScrollView}.
+     */
+    final int nodeCount;
+
+    /**
+     * Build the tree and lay it out as content of an activity.
+     *
+     * @param activity       host activity
+     * @param width          number of branches
+     * @param depth          number of views per branch including its leaf, at least 2
+     * @param scrollableLeaf {@code true} if the last leaf is a scrollable {@link ScrollView}
+     * @param leafRule       rule for all directions of the last leaf
+     */
+    SyntheticHierarchy ( Activity activity, int width, int depth, boolean scrollableLeaf, int leafRule ) {
+        this(activity, width, depth, scrollableLeaf ? LEAF_VERTICAL : LEAF_STATIC, leafRule);
+    }
+
+    /**
+     * Build the tree and lay it out as content of an activity.
+     *
+     * @param activity host activity
+     * @param width    number of branches
+     * @param depth    number of views per branch including its leaf, at least 2
+     * @param leafType type of the last leaf, one of {@code LEAF_*}
+     * @param leafRule rule for all directions of the last leaf
+     */
+    SyntheticHierarchy ( Activity activity, int width, int depth, int leafType, int leafRule ) {
+        scrollView = new RuledScrollView(activity);
+        Rule containerRule = new Rule();
+        containerRule.setRuleForAllDirections(Rule.RULE_HANDLE_IF_SCROLLABLE);
+        Rule.setRuleForView(scrollView, containerRule);
+        // flings are not part of the measured interception, their frame callbacks would only add noise
+        scrollView.setFlingHandoffEnabled(false);
+
+        // twice the screen height, so the container can scroll itself
+        FrameLayout root = new FrameLayout(activity);
+        scrollView.addView(root, new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, SCREEN_HEIGHT * 2));
+        int count = 1;
+
+        View leaf = null;
+        for (int b = 0; b < width; b++) {
+            ViewGroup parent = root;
+            for (int d = 1; d < depth; d++) {
+                FrameLayout group = new FrameLayout(activity);
+                // mixed rules: never, if scrollable or none, none of them can scroll
+                switch ((b + d) % 3) {
+                    case 0:
+                        setRule(group, Rule.RULE_HANDLE_NEVER);
+                        break;
+                    case 1:
+                        setRule(group, Rule.RULE_HANDLE_IF_SCROLLABLE);
+                        break;
+                    default:
+                        break;
+                }
+                parent.addView(group, matchParent());
+                parent = group;
+                count++;
+            }
+
+            boolean last = b == width - 1;
+            if (last && leafType == LEAF_VERTICAL) {
+                ScrollView scroller = new ScrollView(activity);
+                scroller.addView(new View(activity), new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, SCREEN_HEIGHT * 4));
+                count++;
+                leaf = scroller;
+            } else if (last && leafType == LEAF_HORIZONTAL) {
+                HorizontalScrollView scroller = new HorizontalScrollView(activity);
+                scroller.addView(new View(activity), new FrameLayout.LayoutParams(SCREEN_WIDTH * 4, ViewGroup.LayoutParams.MATCH_PARENT));
+                count++;
+                leaf = scroller;
+            } else {
+                leaf = new View(activity);
+                leaf.setClickable(true);
+                if (b % 2 == 0) {
+                    setRule(leaf, Rule.RULE_HANDLE_IF_SCROLLABLE);
+                }
+            }
+            if (last) {
+                setRule(leaf, leafRule);
+            }
+            parent.addView(leaf, matchParent());
+            count++;
+        }
+        nodeCount = count;
+        lastLeaf = leaf;
+
+        activity.setContentView(scrollView);
+        View decor = activity.getWindow().getDecorView();
+        decor.measure(View.MeasureSpec.makeMeasureSpec(SCREEN_WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SCREEN_HEIGHT, View.MeasureSpec.EXACTLY));
+        decor.layout(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
+    }
+
+    private static void setRule ( View view, int ruleHandle ) {
+        Rule rule = new Rule();
+        rule.setRuleForAllDirections(ruleHandle);
+        Rule.setRuleForView(view, rule);
+    }
+
+    private static FrameLayout.LayoutParams matchParent () {
+        return new FrameLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+    }
+}